@@ -5,14 +5,22 @@ import com.google.gson.GsonBuilder;
 import java.io.*;
 import java.net.Socket;
 import java.util.Scanner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A client class that connects to a socket server and sends commands.
+ * Follows redirects to the node owning the user when the server runs in cluster mode.
+ * Sends 'ping' in the background so the server does not drop the connection as idle
+ * while the user is at the menu; the interval is set with system property
+ * socket.client.heartbeatSeconds (default 60, 0 disables).
  */
 public class Client {
 
     private static final String HOST = "localhost";
-    private static final int PORT = 4999;
+    private static final int PORT = Integer.getInteger("socket.port", 4999);
+    private static final long HEARTBEAT_SECONDS = Long.getLong("socket.client.heartbeatSeconds", 60);
 
     private static final Gson gson = new Gson();
 
@@ -20,10 +28,11 @@ public class Client {
      * Main method of the client. Connects to the server and starts communication.
      */
     public static void main(String[] args) {
-        try (Socket socket = new Socket(HOST, PORT)) {
+        try (Connection connection = new Connection(HOST, PORT)) {
             System.out.println(JsonUtil.jsonInfo("status", "Połączono z serwerem"));
+            connection.startHeartbeat(HEARTBEAT_SECONDS);
 
-            handleCommunication(socket);
+            handleCommunication(connection);
 
         } catch (IOException e) {
             System.err.println(JsonUtil.jsonError("Błąd połączenia z serwerem: " + e.getMessage()));
@@ -32,17 +41,82 @@ public class Client {
         System.out.println(JsonUtil.jsonInfo("status", "Zakończono działanie klienta"));
     }
 
+    /**
+     * Connection to a server node; can be moved to another node on redirect.
+     * All exchanges are synchronized so heartbeats never interleave with user commands.
+     */
+    private static class Connection implements Closeable {
+        private Socket socket;
+        private PrintWriter writer;
+        private BufferedReader reader;
+        private ScheduledExecutorService heartbeat;
+
+        Connection(String host, int port) throws IOException {
+            open(host, port);
+        }
+
+        private void open(String host, int port) throws IOException {
+            socket = new Socket(host, port);
+            writer = new PrintWriter(socket.getOutputStream(), true);
+            reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        }
+
+        /**
+         * Closes the current connection and connects to the given node.
+         * @param address node address in "host:port" form
+         * @throws IOException if the node cannot be reached
+         */
+        synchronized void reconnect(String address) throws IOException {
+            int colon = address.lastIndexOf(':');
+            socket.close();
+            open(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+        }
+
+        synchronized String exchange(String command) throws IOException {
+            writer.println(command);
+            return reader.readLine();
+        }
+
+        /**
+         * Starts sending 'ping' periodically on a daemon thread.
+         * @param intervalSeconds interval between heartbeats, 0 or less disables them
+         */
+        void startHeartbeat(long intervalSeconds) {
+            if (intervalSeconds <= 0) {
+                return;
+            }
+            heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "client-heartbeat");
+                t.setDaemon(true);
+                return t;
+            });
+            heartbeat.scheduleWithFixedDelay(() -> {
+                try {
+                    exchange("ping");
+                } catch (IOException ignored) {
+                    // a broken connection is reported by the next user command
+                }
+            }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (heartbeat != null) {
+                heartbeat.shutdownNow();
+            }
+            synchronized (this) {
+                socket.close();
+            }
+        }
+    }
+
     /**
      * Handles user interaction and command exchange with the server.
-     * @param socket connection to the server
+     * @param connection connection to the server
      * @throws IOException if communication fails
      */
-    private static void handleCommunication(Socket socket) throws IOException {
-        try (
-                PrintWriter writer = new PrintWriter(socket.getOutputStream(), true);
-                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                Scanner scanner = new Scanner(System.in)
-        ) {
+    private static void handleCommunication(Connection connection) throws IOException {
+        try (Scanner scanner = new Scanner(System.in)) {
             boolean running = true;
 
             while (running) {
@@ -51,7 +125,9 @@ public class Client {
                 System.out.println("2. info   – wersja i data utworzenia");
                 System.out.println("3. help   – dostępne komendy");
                 System.out.println("4. stop   – zakończ serwer i klienta");
-                System.out.print("Wybierz opcję (1-4): ");
+                System.out.println("5. ping   – sprawdź połączenie z serwerem");
+                System.out.println("6. inna   – wpisz dowolną komendę (np. send, inbox, search)");
+                System.out.print("Wybierz opcję (1-6): ");
 
                 String choice = scanner.nextLine().trim();
                 String command;
@@ -61,23 +137,49 @@ public class Client {
                     case "2" -> command = "info";
                     case "3" -> command = "help";
                     case "4" -> command = "stop";
+                    case "5" -> command = "ping";
+                    case "6" -> {
+                        System.out.print("Komenda: ");
+                        command = scanner.nextLine().trim();
+                        if (command.isEmpty()) {
+                            continue;
+                        }
+                    }
                     default -> {
                         System.out.println("Nieprawidłowy wybór. Spróbuj ponownie.");
                         continue;
                     }
                 }
 
-                writer.println(command);
+                String responseJson = connection.exchange(command);
 
-                String responseJson = reader.readLine();
+                if (responseJson == null) {
+                    System.out.println("Serwer zamknął połączenie.");
+                    break;
+                }
 
-                if (responseJson == null || responseJson.isBlank()) {
+                if (responseJson.isBlank()) {
                     System.out.println("Odpowiedź z serwera jest pusta!");
                     continue;
                 }
 
                 CommandResponse response = gson.fromJson(responseJson, CommandResponse.class);
 
+                if (response.redirect != null) {
+                    System.out.println(JsonUtil.jsonInfo("status", "Przekierowanie do węzła " + response.redirect));
+                    connection.reconnect(response.redirect);
+                    responseJson = connection.exchange(command);
+                    if (responseJson == null) {
+                        System.out.println("Serwer zamknął połączenie.");
+                        break;
+                    }
+                    if (responseJson.isBlank()) {
+                        System.out.println("Odpowiedź z serwera jest pusta!");
+                        continue;
+                    }
+                    response = gson.fromJson(responseJson, CommandResponse.class);
+                }
+
                 if ("help".equalsIgnoreCase(response.command) && response.status != null) {
                     try {
                         Object statusObj = gson.fromJson(response.status, Object.class);
@@ -94,7 +196,7 @@ public class Client {
                     System.out.println(gson.toJson(response));
                 }
 
-                if ("stop".equalsIgnoreCase(command)) {
+                if ("stop".equalsIgnoreCase(response.command)) {
                     running = false;
                 }
             }
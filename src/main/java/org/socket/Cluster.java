@@ -0,0 +1,184 @@
+package org.socket;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cluster membership of this server node.
+ * Users are partitioned across nodes by consistent hashing on the username;
+ * each node stores and serves only the users it owns and forwards deliveries
+ * for other users to their owning node. Forwarding uses a separate internal
+ * port (client port + offset) served by {@link NodeListener}, never the client port.
+ *
+ * Configurable with system properties:
+ * - socket.cluster.nodes               comma-separated "host:port" list of all nodes' client ports (empty = standalone)
+ * - socket.cluster.self                this node's address from the list (default "localhost:" + port)
+ * - socket.cluster.internalPortOffset  offset of the internal port from the client port (default 1000)
+ */
+public class Cluster {
+    private static final int DEFAULT_INTERNAL_PORT_OFFSET = 1000;
+
+    private final String self;
+    private final List<String> nodes;
+    private final ConsistentHashRing ring;
+    private final int internalPortOffset;
+    private final Map<String, NodeClient> peers = new ConcurrentHashMap<>();
+
+    private Cluster(String self, List<String> nodes, int internalPortOffset) {
+        this.self = self;
+        this.nodes = nodes;
+        this.ring = nodes.isEmpty() ? null : new ConsistentHashRing(nodes);
+        this.internalPortOffset = internalPortOffset;
+    }
+
+    /**
+     * Creates a single-node setup in which every user is local.
+     *
+     * @return standalone cluster
+     */
+    public static Cluster standalone() {
+        return new Cluster(null, List.of(), DEFAULT_INTERNAL_PORT_OFFSET);
+    }
+
+    /**
+     * Creates a cluster of the given nodes.
+     *
+     * @param self               this node's address, must be one of the nodes
+     * @param nodes              client addresses of all nodes in "host:port" form
+     * @param internalPortOffset offset of each node's internal port from its client port
+     * @return configured cluster
+     */
+    static Cluster of(String self, List<String> nodes, int internalPortOffset) {
+        if (!nodes.contains(self)) {
+            throw new IllegalArgumentException("Węzeł " + self + " nie należy do klastra " + nodes);
+        }
+        return new Cluster(self, List.copyOf(nodes), internalPortOffset);
+    }
+
+    /**
+     * Creates the cluster from system properties.
+     *
+     * @param port port this node listens on
+     * @return configured cluster, or a standalone one if no nodes are configured
+     */
+    public static Cluster fromSystemProperties(int port) {
+        String nodesProperty = System.getProperty("socket.cluster.nodes", "").trim();
+        if (nodesProperty.isEmpty()) {
+            return standalone();
+        }
+
+        List<String> nodes = new ArrayList<>();
+        for (String node : nodesProperty.split(",")) {
+            if (!node.isBlank()) {
+                nodes.add(node.trim());
+            }
+        }
+
+        String self = System.getProperty("socket.cluster.self", "localhost:" + port).trim();
+        int offset = Integer.getInteger("socket.cluster.internalPortOffset", DEFAULT_INTERNAL_PORT_OFFSET);
+        return of(self, nodes, offset);
+    }
+
+    /**
+     * @return true if this server is part of a multi-node cluster
+     */
+    public boolean isEnabled() {
+        return ring != null;
+    }
+
+    /**
+     * @return this node's address, or null when standalone
+     */
+    public String getSelf() {
+        return self;
+    }
+
+    /**
+     * @return port on which this node accepts deliveries from other nodes
+     */
+    public int getInternalPort() {
+        return portOf(self) + internalPortOffset;
+    }
+
+    /**
+     * Finds the node owning the user.
+     *
+     * @param username the username
+     * @return address of the owning node, or null when standalone
+     */
+    public String ownerOf(String username) {
+        return isEnabled() ? ring.nodeFor(username) : null;
+    }
+
+    /**
+     * Checks whether the user is stored on this node.
+     *
+     * @param username the username
+     * @return true if this node owns the user
+     */
+    public boolean isLocal(String username) {
+        return !isEnabled() || self.equals(ring.nodeFor(username));
+    }
+
+    /**
+     * Resolves the hosts of all configured nodes, used to accept internal
+     * connections only from cluster members.
+     *
+     * @return addresses of all cluster hosts
+     */
+    public Set<InetAddress> resolvePeerAddresses() {
+        Set<InetAddress> addresses = new HashSet<>();
+        for (String node : nodes) {
+            try {
+                addresses.addAll(List.of(InetAddress.getAllByName(hostOf(node))));
+            } catch (UnknownHostException e) {
+                System.err.println("Nie można rozwiązać adresu węzła " + node + ": " + e.getMessage());
+            }
+        }
+        return addresses;
+    }
+
+    /**
+     * Forwards a message to the node owning the recipient over its internal port.
+     *
+     * @param fromUsername sender's username
+     * @param toUsername   recipient's username, owned by another node
+     * @param content      message content
+     * @return result code of the owning node, or "node_unavailable" if it cannot be reached in time
+     */
+    public String forwardMessage(String fromUsername, String toUsername, String content) {
+        String owner = ownerOf(toUsername);
+        NodeClient peer = peers.computeIfAbsent(owner,
+                node -> new NodeClient(hostOf(node) + ":" + (portOf(node) + internalPortOffset)));
+        try {
+            CommandResponse response = peer.request("deliver " + fromUsername + " " + toUsername + " " + content);
+            return response.status != null ? response.status : "node_unavailable";
+        } catch (IOException e) {
+            System.err.println("Błąd przekazania wiadomości do węzła " + owner + ": " + e.getMessage());
+            return "node_unavailable";
+        }
+    }
+
+    /**
+     * Closes all internal connections to other nodes.
+     */
+    public void close() {
+        peers.values().forEach(NodeClient::close);
+        peers.clear();
+    }
+
+    private static String hostOf(String address) {
+        return address.substring(0, address.lastIndexOf(':'));
+    }
+
+    private static int portOf(String address) {
+        return Integer.parseInt(address.substring(address.lastIndexOf(':') + 1));
+    }
+}
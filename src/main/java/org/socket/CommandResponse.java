@@ -14,6 +14,7 @@ public class CommandResponse {
     public String error;
     public List<CommandInfo> availableCommands;
     public String messageList;
+    public String redirect;
 
 
     public CommandResponse(String command) {
@@ -0,0 +1,59 @@
+package org.socket;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring assigning keys (usernames) to cluster nodes.
+ * Every node is placed on the ring many times (virtual nodes) so keys spread
+ * evenly, and adding or removing a node moves only the keys next to it.
+ */
+public class ConsistentHashRing {
+    private static final int VIRTUAL_NODES = 128;
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    /**
+     * Builds a ring over the given nodes.
+     *
+     * @param nodes node addresses in "host:port" form, must not be empty
+     */
+    public ConsistentHashRing(List<String> nodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Cluster must contain at least one node");
+        }
+        for (String node : nodes) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * Finds the node owning the key: the first node clockwise from the key's hash.
+     *
+     * @param key the key, compared case-insensitively
+     * @return address of the owning node
+     */
+    public String nodeFor(String key) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key.toLowerCase()));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            long h = 0;
+            for (int i = 0; i < 8; i++) {
+                h = (h << 8) | (digest[i] & 0xFF);
+            }
+            return h;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
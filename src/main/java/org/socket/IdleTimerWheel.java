@@ -0,0 +1,193 @@
+package org.socket;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timer wheel that detects idle connections.
+ * A single thread advances the wheel one slot per tick and inspects only the
+ * connections placed in that slot, so the cost does not depend on the total
+ * number of sessions. Recording activity is a single volatile write; a
+ * connection that was active is re-placed lazily when its slot comes up.
+ */
+public class IdleTimerWheel {
+    private static final int WHEEL_SIZE = 512;
+
+    private final long idleTimeoutMillis;
+    private final long tickMillis;
+    private final ArrayDeque<Handle>[] slots;
+    private long currentTick = 0;
+
+    private ScheduledExecutorService ticker;
+
+    /**
+     * Idle tracking state of a single connection.
+     */
+    public final class Handle {
+        private final Runnable onExpire;
+        private volatile long lastActivity;
+        private volatile boolean cancelled;
+        private volatile boolean expired;
+        private long rounds;
+
+        private Handle(Runnable onExpire, long now) {
+            this.onExpire = onExpire;
+            this.lastActivity = now;
+        }
+
+        /**
+         * Records activity on the connection, postponing its expiry.
+         */
+        public void touch() {
+            touch(System.currentTimeMillis());
+        }
+
+        void touch(long now) {
+            lastActivity = now;
+        }
+
+        /**
+         * Stops tracking the connection; it is dropped from the wheel on its next slot visit.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * @return true if the connection was reaped for being idle
+         */
+        public boolean isExpired() {
+            return expired;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public IdleTimerWheel(long idleTimeoutMillis, long tickMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.tickMillis = Math.max(1, tickMillis);
+        this.slots = new ArrayDeque[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            slots[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Creates a wheel from system properties, falling back to defaults:
+     * - socket.idle.timeoutSeconds (default 300, 0 disables idle reaping)
+     * - socket.idle.tickMillis     (default 1000)
+     *
+     * @return configured timer wheel
+     */
+    public static IdleTimerWheel fromSystemProperties() {
+        long timeoutSeconds = Long.getLong("socket.idle.timeoutSeconds", 300);
+        long tick = Long.getLong("socket.idle.tickMillis", 1000);
+        return new IdleTimerWheel(TimeUnit.SECONDS.toMillis(timeoutSeconds), tick);
+    }
+
+    /**
+     * @return true if idle connections are reaped
+     */
+    public boolean isEnabled() {
+        return idleTimeoutMillis > 0;
+    }
+
+    /**
+     * Starts ticking on a daemon thread. Does nothing when idle reaping is disabled.
+     */
+    public synchronized void start() {
+        if (ticker != null || !isEnabled()) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "idle-timer-wheel");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::tickSafely, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops ticking; tracked connections are no longer reaped.
+     */
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    /**
+     * Starts tracking a connection.
+     *
+     * @param onExpire action run on the wheel thread when the connection stays idle too long
+     * @return handle used to record activity and cancel tracking
+     */
+    public Handle register(Runnable onExpire) {
+        return register(onExpire, System.currentTimeMillis());
+    }
+
+    Handle register(Runnable onExpire, long now) {
+        Handle handle = new Handle(onExpire, now);
+        if (isEnabled()) {
+            synchronized (this) {
+                schedule(handle, idleTimeoutMillis);
+            }
+        }
+        return handle;
+    }
+
+    private void schedule(Handle handle, long delayMillis) {
+        long ticks = Math.max(1, (delayMillis + tickMillis - 1) / tickMillis);
+        handle.rounds = (ticks - 1) / WHEEL_SIZE;
+        slots[(int) ((currentTick + ticks) % WHEEL_SIZE)].add(handle);
+    }
+
+    private void tickSafely() {
+        try {
+            tick(System.currentTimeMillis());
+        } catch (Exception e) {
+            System.err.println("Błąd obsługi limitu bezczynności: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Advances the wheel by one slot and expires or re-places the connections found there.
+     *
+     * @param now current time in epoch millis
+     */
+    void tick(long now) {
+        ArrayDeque<Handle> expiredHandles = new ArrayDeque<>();
+
+        synchronized (this) {
+            currentTick++;
+            ArrayDeque<Handle> slot = slots[(int) (currentTick % WHEEL_SIZE)];
+            int size = slot.size();
+
+            for (int i = 0; i < size; i++) {
+                Handle handle = slot.poll();
+                if (handle.cancelled) {
+                    continue;
+                }
+                if (handle.rounds > 0) {
+                    handle.rounds--;
+                    slot.add(handle);
+                    continue;
+                }
+
+                long remaining = handle.lastActivity + idleTimeoutMillis - now;
+                if (remaining <= 0) {
+                    handle.expired = true;
+                    expiredHandles.add(handle);
+                } else {
+                    schedule(handle, remaining);
+                }
+            }
+        }
+
+        for (Handle handle : expiredHandles) {
+            handle.onExpire.run();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.socket;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background task that enforces the retention policy on all inboxes.
+ * Each run processes only a small batch of users, taking the user manager lock
+ * once per user, so 'send' and 'inbox' are never blocked for a whole sweep.
+ * Storage is rewritten only after a sweep that actually removed something.
+ *
+ * Configurable with system properties:
+ * - socket.retention.intervalSeconds (default 60)
+ * - socket.retention.batchSize       (default 100 users per run)
+ */
+public class InboxCompactor {
+    private final UserManager userManager;
+    private final RetentionPolicy policy;
+    private final int batchSize;
+    private final long intervalSeconds;
+
+    private ScheduledExecutorService scheduler;
+    private List<User> sweep;
+    private int cursor = 0;
+    private boolean dirty = false;
+
+    public InboxCompactor(UserManager userManager, RetentionPolicy policy) {
+        this(userManager, policy,
+                Integer.getInteger("socket.retention.batchSize", 100),
+                Long.getLong("socket.retention.intervalSeconds", 60));
+    }
+
+    InboxCompactor(UserManager userManager, RetentionPolicy policy, int batchSize, long intervalSeconds) {
+        this.userManager = userManager;
+        this.policy = policy;
+        this.batchSize = Math.max(1, batchSize);
+        this.intervalSeconds = Math.max(1, intervalSeconds);
+    }
+
+    /**
+     * Starts periodic compaction on a daemon thread.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "inbox-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::runSafely, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the background task, waiting for a running batch to finish.
+     */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    private void runSafely() {
+        try {
+            compactBatch(System.currentTimeMillis());
+        } catch (Exception e) {
+            System.err.println("Błąd kompaktowania skrzynek: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compacts the next batch of users. The user list is snapshotted once per sweep;
+     * users registered meanwhile are picked up by the next sweep. When the cursor
+     * reaches the end of the snapshot, the sweep is complete and changes are
+     * persisted if anything was removed.
+     *
+     * @param now current time in epoch millis
+     * @return number of messages removed in this batch
+     */
+    int compactBatch(long now) {
+        if (sweep == null) {
+            sweep = userManager.getAllUsers();
+            cursor = 0;
+        }
+        List<User> users = sweep;
+
+        int end = Math.min(cursor + batchSize, users.size());
+        int removed = 0;
+
+        for (int i = cursor; i < end; i++) {
+            User user = users.get(i);
+            synchronized (userManager) {
+                removed += policy.apply(user, now);
+            }
+        }
+
+        if (removed > 0) {
+            dirty = true;
+        }
+
+        cursor = end;
+        if (cursor >= users.size()) {
+            sweep = null;
+            if (dirty) {
+                userManager.saveAll();
+                dirty = false;
+            }
+        }
+
+        return removed;
+    }
+}
@@ -49,6 +49,15 @@ public class InboxManager {
      * @return JSON-formatted string of inbox content
      */
     private String formatInbox(User user, UserManager userManager) {
+        String result;
+        synchronized (userManager) {
+            result = formatInboxLocked(user);
+        }
+        userManager.saveAll();
+        return result;
+    }
+
+    private String formatInboxLocked(User user) {
         List<Message> inbox = user.getInbox();
 
         if (inbox == null || inbox.isEmpty()) {
@@ -67,8 +76,6 @@ public class InboxManager {
             msg.setRead(true);
         }
 
-        userManager.saveAll();
-
         return JsonUtil.jsonInfo("inbox", sb.toString());
     }
 }
@@ -5,9 +5,16 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
 
 import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 
 /**
@@ -57,14 +64,50 @@ public class JsonUtil {
 
     /**
      * Saves any Java object (e.g. list or map) to a JSON file.
+     * The data is written to a temporary file first and then renamed over the target,
+     * so a crash mid-write never leaves a truncated file behind.
      *
      * @param data     the object to serialize
      * @param filePath the path to the output file
      * @throws IOException if the file cannot be written
      */
     public static void saveToJsonFile(Object data, String filePath) throws IOException {
-        try (FileWriter fileWriter = new FileWriter(filePath)) {
-            gson.toJson(data, fileWriter);
+        writeJsonFile(toJson(data), filePath);
+    }
+
+    /**
+     * Serializes any Java object to a JSON string in the same format used for files.
+     *
+     * @param data the object to serialize
+     * @return JSON representation of the object
+     */
+    public static String toJson(Object data) {
+        return gson.toJson(data);
+    }
+
+    /**
+     * Atomically replaces a file with already serialized JSON content.
+     * See {@link #saveToJsonFile} for the write-and-rename procedure.
+     *
+     * @param json     serialized JSON content
+     * @param filePath the path to the output file
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeJsonFile(String json, String filePath) throws IOException {
+        Path target = Path.of(filePath).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileOutputStream out = new FileOutputStream(temp.toFile());
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            writer.write(json);
+            writer.flush();
+            out.getFD().sync();
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
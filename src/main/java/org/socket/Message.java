@@ -1,16 +1,30 @@
 package org.socket;
 
 public class Message {
+    private long id;
     private String from;
     private String to;
     private String content;
     private boolean read;
+    private long sentAt;
 
     public Message(String from, String to, String content) {
         this.from = from;
         this.to = to;
         this.content = content.length() > 255 ? content.substring(0, 255) : content;
         this.read = false;
+        this.sentAt = System.currentTimeMillis();
+    }
+
+    /**
+     * @return id unique within the recipient's inbox, increasing in delivery order
+     */
+    public long getId() {
+        return id;
+    }
+
+    void setId(long id) {
+        this.id = id;
     }
 
     public String getFrom() {
@@ -32,4 +46,11 @@ public class Message {
     public void setRead(boolean read) {
         this.read = read;
     }
+
+    /**
+     * @return epoch millis when the message was sent, or 0 for messages stored before timestamps were recorded
+     */
+    public long getSentAt() {
+        return sentAt;
+    }
 }
@@ -5,15 +5,25 @@ import java.util.List;
 /**
  * Handles sending private messages between users.
  * Ensures inbox limits and content length rules are enforced.
+ * In cluster mode messages for users owned by other nodes are forwarded there.
  */
 public class MessageManager {
     private final UserManager userManager;
+    private final Cluster cluster;
 
     /**
      * Constructs a MessageManager with access to UserManager.
      */
     public MessageManager(UserManager userManager) {
+        this(userManager, Cluster.standalone());
+    }
+
+    /**
+     * Constructs a MessageManager delivering through the given cluster.
+     */
+    public MessageManager(UserManager userManager, Cluster cluster) {
         this.userManager = userManager;
+        this.cluster = cluster;
     }
 
     /**
@@ -27,21 +37,46 @@ public class MessageManager {
      *         "ok" - message delivered,
      *         "user_not_found" - recipient does not exist,
      *         "inbox_full" - recipient's inbox is full,
-     *         "to_long" - message exceeds 255 characters
+     *         "to_long" - message exceeds 255 characters,
+     *         "node_unavailable" - recipient's node cannot be reached,
+     *         "wrong_node" - recipient is owned by a node other than the one delivering
      */
     public String sendMessage(User fromUser, String toUsername, String content) {
         if (content.length() > 255) return "too_long";
 
-        User recipient = userManager.getUserByUsername(toUsername);
-        if (recipient == null) return "user_not_found";
+        if (!cluster.isLocal(toUsername)) {
+            return cluster.forwardMessage(fromUser.getUsername(), toUsername, content);
+        }
 
-        long unreadCount = countUnread(recipient.getInbox());
-        if (unreadCount >= 5) return "inbox_full";
+        return deliverLocal(fromUser.getUsername(), toUsername, content);
+    }
 
-        Message msg = new Message(fromUser.getUsername(), toUsername, content);
-        recipient.getInbox().add(msg);
-        userManager.saveAll();
+    /**
+     * Delivers a message to a user stored on this node, never forwarding it.
+     * Used for local recipients and for deliveries forwarded by other nodes;
+     * recipients owned by another node are rejected so partitions never diverge.
+     *
+     * @param fromUsername the sender's username
+     * @param toUsername   the recipient's username
+     * @param content      the message content (max 255 characters)
+     * @return result string, same codes as {@link #sendMessage}
+     */
+    public String deliverLocal(String fromUsername, String toUsername, String content) {
+        if (content.length() > 255) return "too_long";
+        if (!cluster.isLocal(toUsername)) return "wrong_node";
+
+        synchronized (userManager) {
+            User recipient = userManager.getUserByUsername(toUsername);
+            if (recipient == null) return "user_not_found";
 
+            long unreadCount = countUnread(recipient.getInbox());
+            if (unreadCount >= 5) return "inbox_full";
+
+            Message msg = new Message(fromUsername, toUsername, content);
+            recipient.addMessage(msg);
+        }
+
+        userManager.saveAll();
         return "ok";
     }
 
@@ -0,0 +1,112 @@
+package org.socket;
+
+import com.google.gson.Gson;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+/**
+ * Persistent internal connection from this node to another cluster node.
+ * Requests are sent one at a time using the regular line-based protocol;
+ * a broken connection is reopened once before the request fails, so a request
+ * interrupted after the node processed it may be delivered twice.
+ * Connecting and waiting for a response are bounded by timeouts, so a hung node
+ * cannot block deliveries to it forever; a timed-out request is not retried.
+ *
+ * Configurable with system properties:
+ * - socket.cluster.connectTimeoutMillis (default 2000)
+ * - socket.cluster.readTimeoutMillis    (default 5000)
+ */
+public class NodeClient implements Closeable {
+    private static final Gson gson = new Gson();
+
+    private final String host;
+    private final int port;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    private Socket socket;
+    private PrintWriter writer;
+    private BufferedReader reader;
+
+    /**
+     * @param address node address in "host:port" form
+     */
+    public NodeClient(String address) {
+        this(address,
+                Integer.getInteger("socket.cluster.connectTimeoutMillis", 2000),
+                Integer.getInteger("socket.cluster.readTimeoutMillis", 5000));
+    }
+
+    NodeClient(String address, int connectTimeoutMillis, int readTimeoutMillis) {
+        int colon = address.lastIndexOf(':');
+        this.host = address.substring(0, colon);
+        this.port = Integer.parseInt(address.substring(colon + 1));
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    /**
+     * Sends a command line to the node and waits for its response.
+     *
+     * @param command full command line
+     * @return parsed response of the node
+     * @throws IOException if the node cannot be reached or does not answer in time
+     */
+    public synchronized CommandResponse request(String command) throws IOException {
+        try {
+            return exchange(command);
+        } catch (SocketTimeoutException e) {
+            close();
+            throw e;
+        } catch (IOException e) {
+            close();
+            return exchange(command);
+        }
+    }
+
+    private CommandResponse exchange(String command) throws IOException {
+        if (socket == null) {
+            Socket connected = new Socket();
+            try {
+                connected.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+                connected.setSoTimeout(readTimeoutMillis);
+            } catch (IOException e) {
+                connected.close();
+                throw e;
+            }
+            socket = connected;
+            writer = new PrintWriter(socket.getOutputStream(), true);
+            reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        }
+
+        writer.println(command);
+        if (writer.checkError()) {
+            throw new IOException("Nie udało się wysłać żądania do węzła " + host + ":" + port);
+        }
+
+        String responseJson = reader.readLine();
+        if (responseJson == null) {
+            throw new IOException("Węzeł " + host + ":" + port + " zamknął połączenie");
+        }
+        return gson.fromJson(responseJson, CommandResponse.class);
+    }
+
+    /**
+     * Closes the connection; the next request reconnects.
+     */
+    @Override
+    public synchronized void close() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+        socket = null;
+        writer = null;
+        reader = null;
+    }
+}
@@ -0,0 +1,164 @@
+package org.socket;
+
+import com.google.gson.Gson;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Internal server accepting deliveries forwarded by other cluster nodes.
+ * Listens on the node's internal port, separate from the client port, accepts
+ * connections only from configured cluster hosts and understands a single command:
+ *
+ * Usage: deliver <sender> <recipient> <message>
+ */
+public class NodeListener {
+    private static final Gson gson = new Gson();
+
+    private final int port;
+    private final MessageManager messageManager;
+    private final Set<InetAddress> allowedPeers;
+    private final ExecutorService peerPool = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Socket> activePeers = ConcurrentHashMap.newKeySet();
+
+    private volatile ServerSocket serverSocket;
+    private volatile boolean stopping = false;
+
+    /**
+     * @param port           internal port to listen on
+     * @param messageManager manager delivering messages to local users
+     * @param allowedPeers   addresses from which connections are accepted
+     */
+    public NodeListener(int port, MessageManager messageManager, Set<InetAddress> allowedPeers) {
+        this.port = port;
+        this.messageManager = messageManager;
+        this.allowedPeers = allowedPeers;
+    }
+
+    /**
+     * Binds the internal port and starts accepting peers on a background thread.
+     *
+     * @throws IOException if the port cannot be bound
+     */
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port);
+        Thread acceptor = new Thread(this::acceptLoop, "node-listener");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @return the bound port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        ServerSocket socket = serverSocket;
+        while (!stopping) {
+            try {
+                Socket peer = socket.accept();
+                if (!allowedPeers.contains(peer.getInetAddress())) {
+                    System.err.println("Odrzucono połączenie wewnętrzne z " + peer.getInetAddress());
+                    peer.close();
+                    continue;
+                }
+                synchronized (this) {
+                    if (stopping) {
+                        peer.close();
+                        break;
+                    }
+                    activePeers.add(peer);
+                    peerPool.execute(() -> servePeer(peer));
+                }
+            } catch (IOException e) {
+                if (!stopping) {
+                    System.err.println("Błąd połączenia wewnętrznego: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void servePeer(Socket socket) {
+        try (
+                socket;
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                PrintWriter writer = new PrintWriter(socket.getOutputStream(), true)
+        ) {
+            String input;
+            while ((input = reader.readLine()) != null) {
+                writer.println(gson.toJson(handleCommand(input.trim())));
+            }
+        } catch (IOException e) {
+            if (!stopping) {
+                System.err.println("Błąd komunikacji z węzłem: " + e.getMessage());
+            }
+        } finally {
+            activePeers.remove(socket);
+        }
+    }
+
+    private CommandResponse handleCommand(String input) {
+        String[] args = input.split("\\s+");
+        CommandResponse response = new CommandResponse(args[0]);
+
+        if (!"deliver".equals(args[0])) {
+            response.error = "Nieznana komenda: " + args[0];
+        } else if (args.length < 4) {
+            response.error = "Użycie: deliver <nadawca> <odbiorca> <wiadomość>";
+        } else {
+            String content = String.join(" ", Arrays.copyOfRange(args, 3, args.length));
+            response.status = messageManager.deliverLocal(args[1], args[2], content);
+        }
+
+        return response;
+    }
+
+    /**
+     * Stops accepting peers, lets in-flight deliveries finish within the deadline
+     * and closes all internal connections.
+     *
+     * @param timeoutSeconds how long to wait for in-flight deliveries
+     */
+    public void close(long timeoutSeconds) {
+        synchronized (this) {
+            stopping = true;
+            try {
+                if (serverSocket != null) {
+                    serverSocket.close();
+                }
+            } catch (IOException ignored) {
+            }
+            for (Socket peer : activePeers) {
+                try {
+                    peer.shutdownInput();
+                } catch (IOException ignored) {
+                }
+            }
+            peerPool.shutdown();
+        }
+
+        try {
+            if (!peerPool.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                for (Socket peer : activePeers) {
+                    try {
+                        peer.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+                peerPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.socket;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Decides which messages may be removed from an inbox.
+ * A message expires once it is older than the maximum age; additionally only
+ * the newest read messages up to the configured limit are kept.
+ *
+ * Configurable with system properties:
+ * - socket.retention.maxAgeHours      (default 720, 0 disables age expiry)
+ * - socket.retention.maxReadMessages  (default 50, negative disables the limit)
+ */
+public class RetentionPolicy {
+    private final Duration maxAge;
+    private final int maxReadMessages;
+
+    public RetentionPolicy(Duration maxAge, int maxReadMessages) {
+        this.maxAge = maxAge;
+        this.maxReadMessages = maxReadMessages;
+    }
+
+    /**
+     * Creates a policy from system properties, falling back to defaults.
+     *
+     * @return configured retention policy
+     */
+    public static RetentionPolicy fromSystemProperties() {
+        long hours = Long.getLong("socket.retention.maxAgeHours", 720);
+        int maxRead = Integer.getInteger("socket.retention.maxReadMessages", 50);
+        return new RetentionPolicy(Duration.ofHours(hours), maxRead);
+    }
+
+    /**
+     * Removes expired and surplus read messages from the user's inbox in place
+     * and drops them from the user's search index.
+     * Messages without a timestamp (stored before timestamps existed) never expire by age.
+     * The caller must hold the lock guarding the inbox.
+     *
+     * @param user the user whose inbox is pruned; the inbox is ordered from oldest to newest
+     * @param now  current time in epoch millis
+     * @return number of removed messages
+     */
+    public int apply(User user, long now) {
+        List<Message> inbox = user.getInbox();
+        if (inbox == null || inbox.isEmpty()) {
+            return 0;
+        }
+
+        long maxAgeMillis = maxAge.toMillis();
+        int removed = 0;
+
+        if (maxAgeMillis > 0) {
+            Iterator<Message> it = inbox.iterator();
+            while (it.hasNext()) {
+                Message msg = it.next();
+                if (msg.getSentAt() > 0 && now - msg.getSentAt() > maxAgeMillis) {
+                    it.remove();
+                    user.getSearchIndex().remove(msg);
+                    removed++;
+                }
+            }
+        }
+
+        if (maxReadMessages >= 0) {
+            long readCount = inbox.stream().filter(Message::isRead).count();
+            long surplus = readCount - maxReadMessages;
+
+            Iterator<Message> it = inbox.iterator();
+            while (surplus > 0 && it.hasNext()) {
+                Message msg = it.next();
+                if (msg.isRead()) {
+                    it.remove();
+                    user.getSearchIndex().remove(msg);
+                    removed++;
+                    surplus--;
+                }
+            }
+        }
+
+        return removed;
+    }
+}
@@ -0,0 +1,109 @@
+package org.socket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index over a single user's inbox.
+ * Maps each lowercase term of a message's content and sender to the ids of the
+ * messages containing it. Ids are assigned in increasing order, so every posting
+ * list stays sorted and queries are answered by intersecting lists.
+ */
+public class SearchIndex {
+    private Map<String, List<Long>> postings = new HashMap<>();
+
+    /**
+     * Adds a message to the index. The message id must be greater than any id indexed before.
+     *
+     * @param msg the message to index
+     */
+    public void add(Message msg) {
+        for (String term : termsOf(msg)) {
+            postings.computeIfAbsent(term, k -> new ArrayList<>()).add(msg.getId());
+        }
+    }
+
+    /**
+     * Removes a message from the index, dropping terms that no longer occur.
+     *
+     * @param msg the message to remove
+     */
+    public void remove(Message msg) {
+        for (String term : termsOf(msg)) {
+            List<Long> ids = postings.get(term);
+            if (ids == null) {
+                continue;
+            }
+            int pos = Collections.binarySearch(ids, msg.getId());
+            if (pos >= 0) {
+                ids.remove(pos);
+            }
+            if (ids.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    /**
+     * Finds messages containing all terms of the query.
+     *
+     * @param query space-separated search terms
+     * @return ids of matching messages in ascending order, empty if the query has no terms
+     */
+    public List<Long> search(String query) {
+        List<List<Long>> lists = new ArrayList<>();
+        for (String term : tokenize(query)) {
+            List<Long> ids = postings.get(term);
+            if (ids == null) {
+                return List.of();
+            }
+            lists.add(ids);
+        }
+
+        if (lists.isEmpty()) {
+            return List.of();
+        }
+
+        lists.sort(Comparator.comparingInt(List::size));
+        List<Long> result = new ArrayList<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            List<Long> other = lists.get(i);
+            result.removeIf(id -> Collections.binarySearch(other, id) < 0);
+        }
+        return result;
+    }
+
+    /**
+     * @return terms under which the message is indexed: words of its content and its sender
+     */
+    private static Set<String> termsOf(Message msg) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(msg.getContent()));
+        terms.addAll(tokenize(msg.getFrom()));
+        return terms;
+    }
+
+    /**
+     * Splits text into lowercase words made of letters and digits.
+     *
+     * @param text the text to split
+     * @return list of terms, possibly empty
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String word : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                terms.add(word);
+            }
+        }
+        return terms;
+    }
+}
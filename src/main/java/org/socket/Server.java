@@ -10,46 +10,199 @@ import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A socket server class that handles commands sent by clients.
- * Supports commands: uptime, info, help, stop.
+ * Supports commands: uptime, info, help, stop, ping, send, inbox, search.
+ * Serves many clients concurrently; 'stop' or JVM termination triggers a graceful shutdown.
+ * In cluster mode users are partitioned across nodes (see {@link Cluster}); messages
+ * forwarded by other nodes arrive on a separate internal port (see {@link NodeListener}).
  */
 public class Server {
 
-    private static final int PORT = 4999;
+    private static final int PORT = Integer.getInteger("socket.port", 4999);
     private static final String VERSION = "1.1.0";
     private static final Instant START_TIME = Instant.now();
     private static final String CREATED_AT = DateTimeFormatter.ISO_INSTANT.format(START_TIME);
 
     private static final UserManager userManager = new UserManager();
-    private static final MessageManager messageManager = new MessageManager(userManager);
+    private static final Cluster cluster = Cluster.fromSystemProperties(PORT);
+    private static final MessageManager messageManager = new MessageManager(userManager, cluster);
+    private static volatile NodeListener nodeListener;
+    private static final InboxCompactor inboxCompactor =
+            new InboxCompactor(userManager, RetentionPolicy.fromSystemProperties());
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = Long.getLong("socket.shutdown.timeoutSeconds", 10);
+    private static final ExecutorService clientPool = Executors.newVirtualThreadPerTaskExecutor();
+    private static final Set<Socket> activeClients = ConcurrentHashMap.newKeySet();
+    private static final Object clientsLock = new Object();
+    private static final IdleTimerWheel idleWheel = IdleTimerWheel.fromSystemProperties();
+    private static volatile ServerSocket serverSocket;
+    private static volatile boolean stopping = false;
+    private static boolean shutdownDone = false;
 
     private static final Gson gson = new Gson();
 
     /**
      * Main method that starts the server and listens for client connections.
+     * Each client is served on its own virtual thread until shutdown is requested.
      */
     public static void main(String[] args) {
-        try (ServerSocket serverSocket = new ServerSocket(PORT)) {
+        inboxCompactor.start();
+        idleWheel.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Server::shutdown, "server-shutdown"));
+
+        try (ServerSocket socket = new ServerSocket(PORT)) {
+            serverSocket = socket;
             System.out.println(JsonUtil.jsonInfo("status", "Serwer nasłuchuje na porcie " + PORT));
-            try (Socket socket = serverSocket.accept()) {
+            if (cluster.isEnabled()) {
+                nodeListener = new NodeListener(cluster.getInternalPort(), messageManager,
+                        cluster.resolvePeerAddresses());
+                nodeListener.start();
+                System.out.println(JsonUtil.jsonInfo("status", "Tryb klastra, węzeł " + cluster.getSelf()
+                        + ", port wewnętrzny " + cluster.getInternalPort()));
+            }
+
+            while (!stopping) {
+                Socket client = socket.accept();
+                if (!registerClient(client)) {
+                    client.close();
+                    break;
+                }
                 System.out.println(JsonUtil.jsonInfo("status", "Połączono z klientem"));
-                handleClient(socket);
             }
         } catch (IOException e) {
-            System.err.println(JsonUtil.jsonError("Błąd uruchamiania serwera: " + e.getMessage()));
+            if (!stopping) {
+                System.err.println(JsonUtil.jsonError("Błąd uruchamiania serwera: " + e.getMessage()));
+            }
         }
 
+        shutdown();
         System.out.println(JsonUtil.jsonInfo("status", "Serwer zakończył działanie"));
     }
 
+    /**
+     * Registers an accepted client and starts serving it, unless shutdown has begun.
+     * Runs under the same lock as the drain in {@link #shutdown()}, so every registered
+     * client is either drained or was never started.
+     * @param client accepted client socket
+     * @return false if the server is stopping and the client was not started
+     */
+    private static boolean registerClient(Socket client) {
+        synchronized (clientsLock) {
+            if (stopping) {
+                return false;
+            }
+            activeClients.add(client);
+            clientPool.execute(() -> serveClient(client));
+            return true;
+        }
+    }
+
+    /**
+     * Stops accepting new connections. The accept loop in main then performs the shutdown.
+     */
+    private static void requestStop() {
+        stopping = true;
+        ServerSocket socket = serverSocket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Performs a coordinated shutdown; safe to call more than once.
+     * Stops accepting, lets every client finish its in-flight command (input is closed
+     * so no further commands are read), forcibly closes connections still busy after
+     * the deadline, then stops background compaction and flushes users to disk.
+     *
+     * Deadline is configurable with system property socket.shutdown.timeoutSeconds (default 10).
+     */
+    private static synchronized void shutdown() {
+        if (shutdownDone) {
+            return;
+        }
+        synchronized (clientsLock) {
+            requestStop();
+
+            for (Socket client : activeClients) {
+                try {
+                    client.shutdownInput();
+                } catch (IOException ignored) {
+                }
+            }
+
+            clientPool.shutdown();
+        }
+
+        try {
+            if (!clientPool.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Przekroczono czas oczekiwania na klientów, zamykanie połączeń.");
+                for (Socket client : activeClients) {
+                    try {
+                        client.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+                clientPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        idleWheel.stop();
+        inboxCompactor.stop();
+        if (nodeListener != null) {
+            nodeListener.close(SHUTDOWN_TIMEOUT_SECONDS);
+        }
+        cluster.close();
+        userManager.saveAll();
+        shutdownDone = true;
+    }
+
+    /**
+     * Serves a client connection and unregisters it once finished.
+     * The connection is closed by the idle timer wheel if no command arrives in time.
+     * @param socket accepted client socket
+     */
+    private static void serveClient(Socket socket) {
+        IdleTimerWheel.Handle idle = idleWheel.register(() -> closeIdleClient(socket));
+        try (socket) {
+            handleClient(socket, idle);
+        } catch (IOException e) {
+            System.err.println("Błąd podczas komunikacji z klientem: " + e.getMessage());
+        } finally {
+            idle.cancel();
+            activeClients.remove(socket);
+        }
+    }
+
+    /**
+     * Closes a connection that exceeded the idle timeout, unblocking its reader thread.
+     * @param socket idle client socket
+     */
+    private static void closeIdleClient(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
     /**
      * Handles a single client connection.
      * @param socket active socket connection with the client
+     * @param idle   idle tracking handle, touched on every received command
      * @throws IOException if an I/O error occurs
      */
-    private static void handleClient(Socket socket) throws IOException {
+    private static void handleClient(Socket socket, IdleTimerWheel.Handle idle) throws IOException {
         try (
                 BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
                 PrintWriter writer = new PrintWriter(socket.getOutputStream(), true)
@@ -57,18 +210,22 @@ public class Server {
             boolean running = true;
 
             while (running) {
-                try {
-                    String input = reader.readLine();
-                    if (input == null || input.isBlank()) {
-                        System.out.println("Klient zakończył połączenie lub przesłał pustą wiadomość.");
-                        break;
-                    }
+                // read failures, including the socket being closed by the idle timer wheel,
+                // are handled by the outer catch
+                String input = reader.readLine();
+                if (input == null || input.isBlank()) {
+                    System.out.println("Klient zakończył połączenie lub przesłał pustą wiadomość.");
+                    break;
+                }
 
+                idle.touch();
+                try {
                     CommandResponse response = handleCommand(input.trim().toLowerCase());
                     writer.println(gson.toJson(response));
 
                     if ("stop".equalsIgnoreCase(response.command)) {
                         running = false;
+                        requestStop();
                     }
                 }
                 catch (Exception e){
@@ -78,7 +235,11 @@ public class Server {
             }
         }
         catch (IOException e){
-            System.err.println("Błąd podczas komunikacji z klientem: " + e.getMessage());
+            if (idle.isExpired()) {
+                System.out.println("Rozłączono bezczynnego klienta.");
+            } else {
+                System.err.println("Błąd podczas komunikacji z klientem: " + e.getMessage());
+            }
         }
     }
 
@@ -109,29 +270,65 @@ public class Server {
                   new CommandInfo("info", "Wersja i data utworzenia"),
                   new CommandInfo("help", "Lista dostępnych komend"),
                   new CommandInfo("stop", "Zatrzymuje serwer i klienta"),
-                  new CommandInfo("send", "Wyślij wiadomość: send <użytkownik> <treść>")
+                  new CommandInfo("ping", "Sprawdza połączenie (heartbeat), odpowiedź: pong"),
+                  new CommandInfo("send", "Wyślij wiadomość: send <użytkownik> <treść>"),
+                  new CommandInfo("search", "Szukaj w skrzynce: search <słowa>")
                 );
             }
             case "stop" -> response.status = "Zamykanie serwera i klienta...";
 
+            case "ping" -> response.status = "pong";
+
             case "send" -> {
                 // replace with session -based logged user when login is implemented
-                User tempUser = userManager.getUserByUsername("jacek");
+                String username = "jacek";
+                if (!cluster.isLocal(username)) {
+                    return redirectToOwner(command, username);
+                }
+                User tempUser = userManager.getUserByUsername(username);
                 return processSendCommand(tempUser, args, messageManager);
             }
 
             case "inbox" -> {
                 // replace with session -based logged user when login is implemented
-                User tempUser = userManager.getUserByUsername("jacek");
+                String username = "jacek";
+                if (!cluster.isLocal(username)) {
+                    return redirectToOwner(command, username);
+                }
+                User tempUser = userManager.getUserByUsername(username);
                 return processInboxCommand(tempUser, userManager);
             }
 
+            case "search" -> {
+                // replace with session -based logged user when login is implemented
+                String username = "jacek";
+                if (!cluster.isLocal(username)) {
+                    return redirectToOwner(command, username);
+                }
+                User tempUser = userManager.getUserByUsername(username);
+                return processSearchCommand(tempUser, args);
+            }
+
             default -> response.error = "Nieznana komenda: " + command;
         }
 
         return response;
     }
 
+    /**
+     * Builds a response telling the client to reconnect to the node owning the user.
+     *
+     * @param command  the command being redirected
+     * @param username the user the command acts for
+     * @return response with the owning node's address
+     */
+    private static CommandResponse redirectToOwner(String command, String username) {
+        CommandResponse response = new CommandResponse(command);
+        response.redirect = cluster.ownerOf(username);
+        response.status = "Użytkownik obsługiwany przez węzeł " + response.redirect;
+        return response;
+    }
+
     /**
      * Handles the 'send' command with allows a logged-in user to send a message.
      *
@@ -164,6 +361,8 @@ public class Server {
             case "ok" -> "Wiadomość wysłana";
             case "user_not_found" -> "Nie znaleziono użytkownika.";
             case "inbox_full" -> "Szkrzynka odbiorcy jest pełna.";
+            case "node_unavailable" -> "Węzeł odbiorcy jest niedostępny.";
+            case "wrong_node" -> "Konfiguracja klastra jest niespójna, nie dostarczono wiadomości.";
             case "too_long" -> "Wiadomość jest zbyt długa (max 255 znaków).";
             default -> "Nieznany błąd.";
         };
@@ -189,32 +388,80 @@ public class Server {
             return response;
         }
 
-        List<Message> inbox = user.getInbox();
-        if (inbox == null || inbox.isEmpty()) {
-            response.status = "Brak nowych wiadomości.";
-            return response;
+        StringBuilder sb = new StringBuilder();
+        synchronized (userManager) {
+            List<Message> inbox = user.getInbox();
+            if (inbox == null || inbox.isEmpty()) {
+                response.status = "Brak nowych wiadomości.";
+                return response;
+            }
+
+            List<Message> unreadMessages = inbox.stream()
+                    .filter(m -> !m.isRead())
+                    .toList();
+
+            if (unreadMessages.isEmpty()) {
+                response.status = "Brak nowych wiadomości.";
+                return response;
+            }
+
+            for (Message msg : unreadMessages) {
+                sb.append("Od: ").append(msg.getFrom()).append("\n");
+                sb.append("Treść: ").append(msg.getContent()).append("\n");
+                sb.append("---\n");
+
+                msg.setRead(true);
+            }
         }
 
-        List<Message> unreadMessages = inbox.stream()
-                .filter(m -> !m.isRead())
-                .toList();
+        userManager.saveAll();
+        response.messageList = sb.toString().trim();
 
-        if (unreadMessages.isEmpty()) {
-            response.status = "Brak nowych wiadomości.";
+        return response;
+    }
+
+    /**
+     * Processes the "search" command for the currently logged-in user.
+     *
+     * Looks up messages containing all given words in their content or sender
+     * using the user's search index. Messages keep their read state.
+     *
+     * Usage: search <words>
+     *
+     * @param user the currently logged-in user
+     * @param args the command arguments (parsed from input string)
+     * @return a CommandResponse containing matching messages or a notification if none
+     */
+    private static CommandResponse processSearchCommand(User user, String[] args) {
+        CommandResponse response = new CommandResponse("search");
+
+        if (user == null) {
+            response.error = "Musisz być zalogowany, aby przeszukać skrzynkę.";
+            return response;
+        }
+
+        if (args.length < 2) {
+            response.error = "Użycie: search <słowa>";
             return response;
         }
 
+        String query = String.join(" ", Arrays.copyOfRange(args, 1, args.length));
+
         StringBuilder sb = new StringBuilder();
-        for (Message msg : unreadMessages) {
-            sb.append("Od: ").append(msg.getFrom()).append("\n");
-            sb.append("Treść: ").append(msg.getContent()).append("\n");
-            sb.append("---\n");
+        synchronized (userManager) {
+            List<Message> found = user.searchInbox(query);
+            if (found.isEmpty()) {
+                response.status = "Brak pasujących wiadomości.";
+                return response;
+            }
 
-            msg.setRead(true);
+            for (Message msg : found) {
+                sb.append("Od: ").append(msg.getFrom()).append("\n");
+                sb.append("Treść: ").append(msg.getContent()).append("\n");
+                sb.append("---\n");
+            }
         }
 
-        userManager.saveAll();
-
         response.messageList = sb.toString().trim();
 
         return response;
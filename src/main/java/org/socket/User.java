@@ -8,12 +8,15 @@ public class User {
     private String password;
     private String role;
     private List<Message> inbox;
+    private long lastMessageId;
+    private SearchIndex searchIndex;
 
     public User(String username, String password, String role) {
         this.username = username;
         this.password = password;
         this.role = role;
         this.inbox = new ArrayList<>();
+        this.searchIndex = new SearchIndex();
     }
 
     public String getUsername() {
@@ -31,4 +34,81 @@ public class User {
     public List<Message> getInbox() {
         return inbox;
     }
+
+    public SearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    /**
+     * Delivers a message to the inbox, assigning its id and indexing it for search.
+     *
+     * @param msg the message to deliver
+     */
+    public void addMessage(Message msg) {
+        msg.setId(++lastMessageId);
+        inbox.add(msg);
+        searchIndex.add(msg);
+    }
+
+    /**
+     * Finds inbox messages containing all given terms in their content or sender.
+     *
+     * @param query space-separated search terms
+     * @return matching messages, oldest first
+     */
+    public List<Message> searchInbox(String query) {
+        List<Message> result = new ArrayList<>();
+        for (long id : searchIndex.search(query)) {
+            int pos = indexOfMessage(id);
+            if (pos >= 0) {
+                result.add(inbox.get(pos));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Binary search over the inbox, which is always ordered by message id.
+     *
+     * @param id the message id
+     * @return position of the message in the inbox, or -1 if it is not there
+     */
+    private int indexOfMessage(long id) {
+        int low = 0;
+        int high = inbox.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = inbox.get(mid).getId();
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Prepares data loaded from storage written before ids and the search index existed:
+     * renumbers messages in inbox order and rebuilds the index.
+     */
+    void ensureSearchIndex() {
+        if (inbox == null) {
+            inbox = new ArrayList<>();
+        }
+
+        boolean missingIds = inbox.stream().anyMatch(m -> m.getId() == 0);
+        if (searchIndex != null && !missingIds) {
+            return;
+        }
+
+        searchIndex = new SearchIndex();
+        lastMessageId = 0;
+        for (Message msg : inbox) {
+            msg.setId(++lastMessageId);
+            searchIndex.add(msg);
+        }
+    }
 }
@@ -8,15 +8,35 @@ import java.util.List;
 /**
  * Manages user registration, lookup, and data persistence to a JSON file.
  * Used to load existing users and store newly registered ones.
+ * The instance itself is the lock guarding the user list and all inboxes.
+ * Saving must be requested after releasing that lock: the data is snapshotted
+ * under the lock, but the file is written outside it.
  */
 public class UserManager {
-    private static final String FILE_PATH = "users.json";
+    private static final String DEFAULT_FILE_PATH = "users.json";
+    private final String filePath;
     private List<User> users;
 
+    private final Object writeLock = new Object();
+    private long saveRequests = 0;    // guarded by this
+    private long savedRequests = 0;   // guarded by writeLock
+
     /**
      * Initializes the user manager and loads existing users from the JSON file.
+     * The file path can be set with system property socket.users.file (default users.json),
+     * e.g. to give each cluster node on one machine its own file.
      */
     public UserManager() {
+        this(System.getProperty("socket.users.file", DEFAULT_FILE_PATH));
+    }
+
+    /**
+     * Initializes the user manager and loads existing users from the given JSON file.
+     *
+     * @param filePath path to the users file
+     */
+    public UserManager(String filePath) {
+        this.filePath = filePath;
         users = loadUsersFromFile();
     }
 
@@ -27,14 +47,18 @@ public class UserManager {
      * @return list of users loaded from file, or an empty list if none found or error occurs
      */
     private List<User> loadUsersFromFile() {
-        File file = new File(FILE_PATH);
+        File file = new File(filePath);
         if (!file.exists() || file.length() == 0) {
             return new ArrayList<>();
         }
 
         try {
-            List<User> loaded = JsonUtil.loadListFromJsonFile(FILE_PATH, User.class);
-            return loaded != null ? loaded : new ArrayList<>();
+            List<User> loaded = JsonUtil.loadListFromJsonFile(filePath, User.class);
+            if (loaded == null) {
+                return new ArrayList<>();
+            }
+            loaded.forEach(User::ensureSearchIndex);
+            return loaded;
         } catch (IOException e) {
             System.err.println("Błąd odczytu user.json" + e.getMessage());
             return new ArrayList<>();
@@ -51,12 +75,14 @@ public class UserManager {
      * @return true if registration succeeded, false if the username already exists
      */
     public boolean registerUser(String username, String password, String role) {
-        if (getUserByUsername(username) != null){
-            return false;
+        synchronized (this) {
+            if (getUserByUsername(username) != null){
+                return false;
+            }
+            User newUser = new User(username, password, role);
+            users.add(newUser);
         }
-        User newUser = new User(username, password, role);
-        users.add(newUser);
-        saveUsersToFile();;
+        saveAll();
         return true;
     }
 
@@ -66,7 +92,7 @@ public class UserManager {
      * @param username the username to look up
      * @return the matching User object, or null if not found
      */
-    public User getUserByUsername(String username) {
+    public synchronized User getUserByUsername(String username) {
         for (User user : users) {
             if (user.getUsername().equalsIgnoreCase(username)) {
                 return user;
@@ -75,15 +101,51 @@ public class UserManager {
         return null;
     }
 
+    /**
+     * Returns a snapshot of all registered users.
+     *
+     * @return copy of the user list
+     */
+    public synchronized List<User> getAllUsers() {
+        return new ArrayList<>(users);
+    }
+
     /**
      * Saves the current list of users to the JSON file.
+     * Only serialization happens under the user manager lock; the atomic, synced
+     * file write happens outside it. Concurrent requests are coalesced: a caller
+     * whose changes were already included in a snapshot written by another thread
+     * returns without writing again.
      */
     private void saveUsersToFile() {
-        try {
-            JsonUtil.saveToJsonFile(users, FILE_PATH);
+        if (Thread.holdsLock(this)) {
+            throw new IllegalStateException("saveAll must not be called while holding the user manager lock");
+        }
+
+        long requested;
+        synchronized (this) {
+            requested = ++saveRequests;
         }
-        catch (IOException e){
-            System.err.println("Błąd zapisu users.json" + e.getMessage());
+
+        synchronized (writeLock) {
+            if (savedRequests >= requested) {
+                return;
+            }
+
+            String json;
+            long covered;
+            synchronized (this) {
+                json = JsonUtil.toJson(users);
+                covered = saveRequests;
+            }
+
+            try {
+                JsonUtil.writeJsonFile(json, filePath);
+                savedRequests = covered;
+            }
+            catch (IOException e){
+                System.err.println("Błąd zapisu users.json" + e.getMessage());
+            }
         }
     }
 
@@ -94,7 +156,7 @@ public class UserManager {
      * @param password the password
      * @return the logged-in User object if credentials are correct, otherwise null
      */
-    public User loginUser(String username, String password) {
+    public synchronized User loginUser(String username, String password) {
         User user = getUserByUsername(username);
         if (user != null && user.getPassword().equals(password)) {
             return user;
@@ -104,7 +166,8 @@ public class UserManager {
 
     /**
      * Save all users to disk by delegating to internal save method.
-     * Intended for external use (e.g. after message or user updates).
+     * Intended for external use (e.g. after message or user updates);
+     * call it after leaving any block synchronized on this instance.
      */
     public void saveAll() {
         saveUsersToFile();
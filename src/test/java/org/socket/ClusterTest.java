@@ -0,0 +1,152 @@
+package org.socket;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterTest {
+
+    @TempDir
+    Path dir;
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String userOwnedBy(Cluster cluster, String node) {
+        for (int i = 0; ; i++) {
+            String username = "user" + i;
+            if (node.equals(cluster.ownerOf(username))) {
+                return username;
+            }
+        }
+    }
+
+    @Test
+    void standaloneOwnsEveryUser() {
+        Cluster cluster = Cluster.standalone();
+
+        assertFalse(cluster.isEnabled());
+        assertTrue(cluster.isLocal("anyone"));
+    }
+
+    @Test
+    void selfMustBeClusterMember() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Cluster.of("localhost:6000", List.of("localhost:5001", "localhost:5002"), 1000));
+    }
+
+    @Test
+    void internalPortIsOffsetFromClientPort() {
+        Cluster cluster = Cluster.of("localhost:5001", List.of("localhost:5001", "localhost:5002"), 1000);
+
+        assertEquals(6001, cluster.getInternalPort());
+    }
+
+    @Test
+    void deliverLocalRejectsRecipientOwnedByAnotherNode() {
+        List<String> nodes = List.of("localhost:5001", "localhost:5002");
+        Cluster cluster = Cluster.of("localhost:5001", nodes, 1000);
+        UserManager userManager = new UserManager(dir.resolve("users.json").toString());
+        String foreign = userOwnedBy(cluster, "localhost:5002");
+        userManager.registerUser(foreign, "secret", "user");
+
+        String result = new MessageManager(userManager, cluster).deliverLocal("admin", foreign, "spoofed");
+
+        assertEquals("wrong_node", result);
+        assertTrue(userManager.getUserByUsername(foreign).getInbox().isEmpty());
+    }
+
+    @Test
+    void messageIsForwardedToOwningNode() throws Exception {
+        int portA = freePort();
+        int portB = freePort();
+        List<String> nodes = List.of("localhost:" + portA, "localhost:" + portB);
+        Cluster clusterA = Cluster.of("localhost:" + portA, nodes, 0);
+        Cluster clusterB = Cluster.of("localhost:" + portB, nodes, 0);
+
+        UserManager usersA = new UserManager(dir.resolve("a.json").toString());
+        UserManager usersB = new UserManager(dir.resolve("b.json").toString());
+        String sender = userOwnedBy(clusterA, "localhost:" + portA);
+        String recipient = userOwnedBy(clusterA, "localhost:" + portB);
+        usersA.registerUser(sender, "secret", "user");
+        usersB.registerUser(recipient, "secret", "user");
+
+        NodeListener listenerB = new NodeListener(portB, new MessageManager(usersB, clusterB),
+                clusterB.resolvePeerAddresses());
+        listenerB.start();
+        try {
+            String result = new MessageManager(usersA, clusterA)
+                    .sendMessage(usersA.getUserByUsername(sender), recipient, "hej z innego wezla");
+
+            assertEquals("ok", result);
+            List<Message> inbox = usersB.getUserByUsername(recipient).getInbox();
+            assertEquals(1, inbox.size());
+            assertEquals(sender, inbox.get(0).getFrom());
+        } finally {
+            clusterA.close();
+            listenerB.close(1);
+        }
+    }
+
+    @Test
+    void unreachableNodeIsReportedAsUnavailable() throws Exception {
+        int portA = freePort();
+        int portB = freePort();
+        List<String> nodes = List.of("localhost:" + portA, "localhost:" + portB);
+        Cluster cluster = Cluster.of("localhost:" + portA, nodes, 0);
+        UserManager users = new UserManager(dir.resolve("a.json").toString());
+        String sender = userOwnedBy(cluster, "localhost:" + portA);
+        users.registerUser(sender, "secret", "user");
+
+        String result = new MessageManager(users, cluster)
+                .sendMessage(users.getUserByUsername(sender), userOwnedBy(cluster, "localhost:" + portB), "hej");
+
+        assertEquals("node_unavailable", result);
+        cluster.close();
+    }
+
+    @Test
+    void requestToHungNodeTimesOut() throws Exception {
+        try (ServerSocket silent = new ServerSocket(0)) {
+            NodeClient client = new NodeClient("localhost:" + silent.getLocalPort(), 1000, 300);
+            long start = System.currentTimeMillis();
+
+            assertThrows(SocketTimeoutException.class, () -> client.request("deliver a b c"));
+            assertTrue(System.currentTimeMillis() - start < 2000);
+            client.close();
+        }
+    }
+
+    @Test
+    void listenerRejectsConnectionsFromUnknownHosts() throws Exception {
+        UserManager users = new UserManager(dir.resolve("users.json").toString());
+        users.registerUser("jacek", "secret", "admin");
+        NodeListener listener = new NodeListener(0, new MessageManager(users),
+                Set.of(InetAddress.getByName("192.0.2.1")));
+        listener.start();
+        try {
+            NodeClient client = new NodeClient("localhost:" + listener.getPort(), 1000, 1000);
+
+            assertThrows(IOException.class, () -> client.request("deliver admin jacek spoofed"));
+            assertTrue(users.getUserByUsername("jacek").getInbox().isEmpty());
+            client.close();
+        } finally {
+            listener.close(1);
+        }
+    }
+}
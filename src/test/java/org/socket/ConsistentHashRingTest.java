@@ -0,0 +1,68 @@
+package org.socket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+
+    private static final List<String> NODES = List.of("localhost:5001", "localhost:5002", "localhost:5003");
+
+    @Test
+    void ownershipIsDeterministicAndCaseInsensitive() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES);
+        ConsistentHashRing sameRing = new ConsistentHashRing(List.of("localhost:5003", "localhost:5001", "localhost:5002"));
+
+        for (int i = 0; i < 100; i++) {
+            String username = "user" + i;
+            assertEquals(ring.nodeFor(username), sameRing.nodeFor(username));
+            assertEquals(ring.nodeFor(username), ring.nodeFor(username.toUpperCase()));
+        }
+    }
+
+    @Test
+    void usersAreSpreadAcrossAllNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES);
+        Map<String, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < 3000; i++) {
+            counts.merge(ring.nodeFor("user" + i), 1, Integer::sum);
+        }
+
+        assertEquals(NODES.size(), counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > 600, "uneven distribution: " + counts);
+        }
+    }
+
+    @Test
+    void addingNodeMovesUsersOnlyToNewNode() {
+        ConsistentHashRing before = new ConsistentHashRing(NODES);
+        ConsistentHashRing after = new ConsistentHashRing(List.of(
+                "localhost:5001", "localhost:5002", "localhost:5003", "localhost:5004"));
+        int moved = 0;
+
+        for (int i = 0; i < 3000; i++) {
+            String username = "user" + i;
+            String oldOwner = before.nodeFor(username);
+            String newOwner = after.nodeFor(username);
+            if (!oldOwner.equals(newOwner)) {
+                assertEquals("localhost:5004", newOwner);
+                moved++;
+            }
+        }
+
+        assertTrue(moved > 0 && moved < 1500, "moved " + moved);
+    }
+
+    @Test
+    void emptyClusterIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of()));
+    }
+}
@@ -0,0 +1,87 @@
+package org.socket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdleTimerWheelTest {
+
+    private static final long T0 = 1_000_000L;
+
+    @Test
+    void expiresConnectionAfterTimeout() {
+        IdleTimerWheel wheel = new IdleTimerWheel(3000, 1000);
+        AtomicInteger closed = new AtomicInteger();
+        IdleTimerWheel.Handle handle = wheel.register(closed::incrementAndGet, T0);
+
+        wheel.tick(T0 + 1000);
+        wheel.tick(T0 + 2000);
+        assertFalse(handle.isExpired());
+
+        wheel.tick(T0 + 3000);
+        assertTrue(handle.isExpired());
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void activityPostponesExpiry() {
+        IdleTimerWheel wheel = new IdleTimerWheel(3000, 1000);
+        AtomicInteger closed = new AtomicInteger();
+        IdleTimerWheel.Handle handle = wheel.register(closed::incrementAndGet, T0);
+
+        handle.touch(T0 + 2500);
+        for (int tick = 1; tick <= 5; tick++) {
+            wheel.tick(T0 + tick * 1000L);
+        }
+        assertFalse(handle.isExpired());
+
+        wheel.tick(T0 + 6000);
+        assertTrue(handle.isExpired());
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void timeoutLongerThanWheelWaitsForRemainingRounds() {
+        long timeoutTicks = 2 * 512 + 10;
+        IdleTimerWheel wheel = new IdleTimerWheel(timeoutTicks, 1);
+        IdleTimerWheel.Handle handle = wheel.register(() -> { }, T0);
+
+        for (long tick = 1; tick < timeoutTicks; tick++) {
+            wheel.tick(T0 + tick);
+        }
+        assertFalse(handle.isExpired());
+
+        wheel.tick(T0 + timeoutTicks);
+        assertTrue(handle.isExpired());
+    }
+
+    @Test
+    void cancelledConnectionNeverExpires() {
+        IdleTimerWheel wheel = new IdleTimerWheel(2000, 1000);
+        AtomicInteger closed = new AtomicInteger();
+        IdleTimerWheel.Handle handle = wheel.register(closed::incrementAndGet, T0);
+
+        handle.cancel();
+        for (int tick = 1; tick <= 5; tick++) {
+            wheel.tick(T0 + tick * 1000L);
+        }
+
+        assertFalse(handle.isExpired());
+        assertEquals(0, closed.get());
+    }
+
+    @Test
+    void disabledWheelDoesNotTrackConnections() {
+        IdleTimerWheel wheel = new IdleTimerWheel(0, 1000);
+        IdleTimerWheel.Handle handle = wheel.register(() -> { }, T0);
+
+        wheel.tick(T0 + 1_000_000);
+
+        assertFalse(wheel.isEnabled());
+        assertFalse(handle.isExpired());
+    }
+}
@@ -0,0 +1,78 @@
+package org.socket;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InboxCompactorTest {
+
+    @TempDir
+    Path dir;
+
+    private UserManager userManagerWithReadMessages(Path file, int users) {
+        UserManager userManager = new UserManager(file.toString());
+        for (int i = 0; i < users; i++) {
+            String username = "user" + i;
+            userManager.registerUser(username, "secret", "user");
+            Message msg = new Message("jacek", username, "hej");
+            msg.setRead(true);
+            userManager.getUserByUsername(username).addMessage(msg);
+        }
+        return userManager;
+    }
+
+    @Test
+    void sweepsUsersInBatches() {
+        UserManager userManager = userManagerWithReadMessages(dir.resolve("users.json"), 5);
+        InboxCompactor compactor = new InboxCompactor(userManager, new RetentionPolicy(Duration.ZERO, 0), 2, 60);
+        long now = System.currentTimeMillis();
+
+        assertEquals(2, compactor.compactBatch(now));
+        assertEquals(2, compactor.compactBatch(now));
+        assertEquals(1, compactor.compactBatch(now));
+
+        for (User user : userManager.getAllUsers()) {
+            assertTrue(user.getInbox().isEmpty());
+        }
+    }
+
+    @Test
+    void persistsOnlyAfterSweepThatRemovedMessages() throws Exception {
+        Path file = dir.resolve("users.json");
+        UserManager userManager = userManagerWithReadMessages(file, 3);
+        InboxCompactor compactor = new InboxCompactor(userManager, new RetentionPolicy(Duration.ZERO, 0), 2, 60);
+        long now = System.currentTimeMillis();
+
+        compactor.compactBatch(now);
+        assertTrue(Files.readString(file).contains("\"hej\""));
+
+        compactor.compactBatch(now);
+        assertFalse(Files.readString(file).contains("\"hej\""));
+    }
+
+    @Test
+    void usersRegisteredDuringSweepAreHandledByNextSweep() {
+        UserManager userManager = userManagerWithReadMessages(dir.resolve("users.json"), 2);
+        InboxCompactor compactor = new InboxCompactor(userManager, new RetentionPolicy(Duration.ZERO, 0), 1, 60);
+        long now = System.currentTimeMillis();
+
+        assertEquals(1, compactor.compactBatch(now));
+
+        userManager.registerUser("late", "secret", "user");
+        Message msg = new Message("jacek", "late", "hej");
+        msg.setRead(true);
+        userManager.getUserByUsername("late").addMessage(msg);
+
+        assertEquals(1, compactor.compactBatch(now));
+        assertEquals(0, compactor.compactBatch(now));
+        assertEquals(0, compactor.compactBatch(now));
+        assertEquals(1, compactor.compactBatch(now));
+    }
+}
@@ -0,0 +1,75 @@
+package org.socket;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RetentionPolicyTest {
+
+    private static User userWithMessages(int count) {
+        User user = new User("ania", "secret", "user");
+        for (int i = 0; i < count; i++) {
+            user.addMessage(new Message("jacek", "ania", "wiadomosc " + i));
+        }
+        return user;
+    }
+
+    @Test
+    void keepsOnlyNewestReadMessages() {
+        User user = userWithMessages(5);
+        user.getInbox().forEach(m -> m.setRead(true));
+
+        int removed = new RetentionPolicy(Duration.ZERO, 2).apply(user, System.currentTimeMillis());
+
+        assertEquals(3, removed);
+        assertEquals(List.of("wiadomosc 3", "wiadomosc 4"),
+                user.getInbox().stream().map(Message::getContent).toList());
+    }
+
+    @Test
+    void unreadMessagesDoNotCountTowardsReadLimit() {
+        User user = userWithMessages(4);
+        user.getInbox().get(0).setRead(true);
+
+        int removed = new RetentionPolicy(Duration.ZERO, 0).apply(user, System.currentTimeMillis());
+
+        assertEquals(1, removed);
+        assertEquals(3, user.getInbox().size());
+    }
+
+    @Test
+    void expiresMessagesOlderThanMaxAge() {
+        User user = userWithMessages(3);
+        long later = System.currentTimeMillis() + Duration.ofHours(2).toMillis();
+
+        int removed = new RetentionPolicy(Duration.ofHours(1), -1).apply(user, later);
+
+        assertEquals(3, removed);
+        assertEquals(0, user.getInbox().size());
+    }
+
+    @Test
+    void keepsMessagesYoungerThanMaxAge() {
+        User user = userWithMessages(3);
+
+        int removed = new RetentionPolicy(Duration.ofHours(1), -1).apply(user, System.currentTimeMillis());
+
+        assertEquals(0, removed);
+        assertEquals(3, user.getInbox().size());
+    }
+
+    @Test
+    void removedMessagesDisappearFromSearchIndex() {
+        User user = userWithMessages(3);
+        user.getInbox().forEach(m -> m.setRead(true));
+
+        new RetentionPolicy(Duration.ZERO, 1).apply(user, System.currentTimeMillis());
+
+        assertEquals(1, user.searchInbox("wiadomosc").size());
+        assertEquals(0, user.searchInbox("0").size());
+        assertEquals(1, user.searchInbox("2").size());
+    }
+}
@@ -0,0 +1,100 @@
+package org.socket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchIndexTest {
+
+    private static Message message(long id, String from, String content) {
+        Message msg = new Message(from, "jacek", content);
+        msg.setId(id);
+        return msg;
+    }
+
+    @Test
+    void findsMessagesContainingAllTerms() {
+        SearchIndex index = new SearchIndex();
+        index.add(message(1, "ania", "Koty i psy"));
+        index.add(message(2, "ola", "tylko psy"));
+        index.add(message(3, "ania", "same koty"));
+
+        assertEquals(List.of(1L, 3L), index.search("koty"));
+        assertEquals(List.of(1L, 2L), index.search("PSY"));
+        assertEquals(List.of(1L), index.search("psy koty"));
+        assertEquals(List.of(3L), index.search("ania same"));
+    }
+
+    @Test
+    void unknownTermOrEmptyQueryMatchesNothing() {
+        SearchIndex index = new SearchIndex();
+        index.add(message(1, "ania", "koty"));
+
+        assertTrue(index.search("koty ptaki").isEmpty());
+        assertTrue(index.search("").isEmpty());
+        assertTrue(index.search(" ,. ").isEmpty());
+    }
+
+    @Test
+    void removedMessageIsNoLongerFound() {
+        SearchIndex index = new SearchIndex();
+        Message first = message(1, "ania", "koty i psy");
+        Message second = message(2, "ania", "psy");
+        index.add(first);
+        index.add(second);
+
+        index.remove(first);
+
+        assertTrue(index.search("koty").isEmpty());
+        assertEquals(List.of(2L), index.search("psy"));
+        assertEquals(List.of(2L), index.search("ania"));
+
+        index.remove(second);
+        assertTrue(index.search("ania").isEmpty());
+    }
+
+    @Test
+    void removingUnindexedMessageIsHarmless() {
+        SearchIndex index = new SearchIndex();
+        index.add(message(1, "ania", "koty"));
+
+        index.remove(message(7, "ola", "koty psy"));
+
+        assertEquals(List.of(1L), index.search("koty"));
+    }
+
+    @Test
+    void tokenizerSplitsOnNonLetters() {
+        assertEquals(List.of("zażółć", "gęślą", "42"), SearchIndex.tokenize("Zażółć, gęślą!42"));
+    }
+
+    @Test
+    void userSearchReturnsMessagesInDeliveryOrder() {
+        User user = new User("jacek", "secret", "admin");
+        user.addMessage(new Message("ania", "jacek", "pierwsza wiadomosc"));
+        user.addMessage(new Message("ola", "jacek", "druga"));
+        user.addMessage(new Message("ania", "jacek", "trzecia wiadomosc"));
+
+        List<String> found = user.searchInbox("wiadomosc").stream().map(Message::getContent).toList();
+
+        assertEquals(List.of("pierwsza wiadomosc", "trzecia wiadomosc"), found);
+    }
+
+    @Test
+    void dataWithoutIdsIsRenumberedAndReindexed() {
+        User user = new User("jacek", "secret", "admin");
+        user.getInbox().add(new Message("ania", "jacek", "stara wiadomosc"));
+        user.getInbox().add(new Message("ola", "jacek", "inna"));
+
+        user.ensureSearchIndex();
+
+        assertEquals(List.of(1L, 2L), user.getInbox().stream().map(Message::getId).toList());
+        assertEquals(1, user.searchInbox("stara").size());
+
+        user.addMessage(new Message("ania", "jacek", "nowa"));
+        assertEquals(3L, user.getInbox().get(2).getId());
+    }
+}
@@ -0,0 +1,58 @@
+package org.socket;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserManagerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void concurrentDeliveriesAreAllPersisted() throws Exception {
+        Path file = dir.resolve("users.json");
+        UserManager userManager = new UserManager(file.toString());
+        MessageManager messageManager = new MessageManager(userManager);
+        userManager.registerUser("jacek", "secret", "admin");
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String username = "user" + i;
+            userManager.registerUser(username, "secret", "user");
+            threads.add(new Thread(() -> {
+                User sender = userManager.getUserByUsername("jacek");
+                for (int j = 0; j < 5; j++) {
+                    messageManager.sendMessage(sender, username, "wiadomosc " + j);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        UserManager reloaded = new UserManager(file.toString());
+        for (int i = 0; i < 8; i++) {
+            assertEquals(5, reloaded.getUserByUsername("user" + i).getInbox().size());
+        }
+        assertFalse(Files.exists(dir.resolve("users.json.tmp")));
+    }
+
+    @Test
+    void savingWhileHoldingLockIsRejected() {
+        UserManager userManager = new UserManager(dir.resolve("users.json").toString());
+
+        synchronized (userManager) {
+            assertThrows(IllegalStateException.class, userManager::saveAll);
+        }
+    }
+}